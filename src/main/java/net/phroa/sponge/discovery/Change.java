@@ -0,0 +1,68 @@
+/**
+ * Discovery
+ *
+ * Copyright (C) phroa <jack@phroa.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.phroa.sponge.discovery;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+/**
+ * A row from the `changes` table, along with the current state of the region it refers to.
+ *
+ * Every server sharing a database appends one of these whenever it creates, renames, or deletes a region, or whenever a player
+ * discovers one. Other servers poll for them to keep their caches up to date.
+ */
+class Change {
+
+    private final long id;
+    private final UUID regionUuid;
+    @Nullable private final UUID playerUuid;
+    @Nullable private final Region region;
+
+    Change(long id, UUID regionUuid, @Nullable UUID playerUuid, @Nullable Region region) {
+        this.id = id;
+        this.regionUuid = regionUuid;
+        this.playerUuid = playerUuid;
+        this.region = region;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public UUID getRegionUuid() {
+        return regionUuid;
+    }
+
+    /**
+     * @return The player who discovered the region, or empty if the region itself was changed
+     */
+    public Optional<UUID> getPlayerUuid() {
+        return Optional.ofNullable(playerUuid);
+    }
+
+    /**
+     * @return The region as it is now stored in the database, or empty if it has been deleted or this change is a discovery
+     */
+    public Optional<Region> getRegion() {
+        return Optional.ofNullable(region);
+    }
+
+}
@@ -0,0 +1,98 @@
+/**
+ * Discovery
+ *
+ * Copyright (C) phroa <jack@phroa.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.phroa.sponge.discovery;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Keeps track of which rows of the `changes` table have been applied.
+ *
+ * A plain "highest ID seen" isn't enough. PostgreSQL and MySQL hand out IDs when a row is inserted, not when its transaction
+ * commits, so while one server's transaction holding ID 10 is still open, another's holding ID 11 can commit and be polled.
+ * Moving past 11 at that point would skip 10 forever. Instead, any IDs jumped over are remembered as missing and queried for
+ * again on every poll until they turn up, or until enough time has passed that they must belong to a transaction that was
+ * rolled back.
+ *
+ * This is only used from the polling task, but is synchronized in case a slow poll overlaps the next one.
+ */
+final class ChangeCursor {
+
+    private final long gapTimeout;
+
+    private long highest;
+
+    // Missing IDs, along with when they were first noticed.
+    private final Map<Long, Long> missing = Maps.newHashMap();
+
+    /**
+     * @param highest The ID of the newest change already reflected in the caches
+     * @param gapTimeout How long, in milliseconds, to keep looking for a missing ID
+     */
+    ChangeCursor(long highest, long gapTimeout) {
+        this.highest = highest;
+        this.gapTimeout = gapTimeout;
+    }
+
+    /**
+     * @return The ID to query for changes newer than, which is just below the oldest missing ID if there are any
+     */
+    synchronized long getQueryFrom() {
+        return missing.isEmpty() ? highest : Collections.min(missing.keySet()) - 1;
+    }
+
+    /**
+     * @param id The ID of a change
+     * @return Whether the change hasn't been applied yet
+     */
+    synchronized boolean isNew(long id) {
+        return id > highest || missing.containsKey(id);
+    }
+
+    /**
+     * Note that a change has been applied. Changes must be offered in order of their IDs.
+     *
+     * @param id The ID of the change
+     * @param now The current time, in milliseconds
+     * @return Whether the change was new
+     */
+    synchronized boolean accept(long id, long now) {
+        if (id > highest) {
+            for (long gap = highest + 1; gap < id; gap++) {
+                missing.put(gap, now);
+            }
+            highest = id;
+            return true;
+        }
+
+        return missing.remove(id) != null;
+    }
+
+    /**
+     * Stop looking for IDs that have been missing for too long.
+     *
+     * @param now The current time, in milliseconds
+     */
+    synchronized void expire(long now) {
+        missing.values().removeIf(noticed -> now - noticed > gapTimeout);
+    }
+
+}
@@ -18,16 +18,42 @@
  */
 package net.phroa.sponge.discovery;
 
+import com.flowpowered.math.vector.Vector2i;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 /**
  * Represents a region that a player can discover.
  */
 public class Region implements Comparable<Region> {
 
+    /**
+     * The shape of the area a region covers, from bedrock up to the sky.
+     */
+    public enum Shape {
+        /**
+         * Everything strictly between the minimum and maximum coordinates.
+         */
+        RECTANGLE,
+        /**
+         * The circle inscribed in the minimum and maximum coordinates.
+         */
+        CIRCLE,
+        /**
+         * The polygon described by the region's vertices, which the minimum and maximum coordinates bound.
+         */
+        POLYGON
+    }
+
     private final UUID uuid;
     private final String name;
     private final UUID worldUuid;
+    private final Shape shape;
+    private final List<Vector2i> vertices;
     private final int xMin;
     private final int zMin;
     private final int xMax;
@@ -37,11 +63,21 @@ public class Region implements Comparable<Region> {
     private final double teleportZ;
     private final UUID creator;
 
+    // Rectangles are quick enough to check directly, so they don't get one of these.
+    @Nullable private final RegionMask mask;
+
     public Region(UUID uuid, String name, UUID worldUuid, int xMin, int zMin, int xMax, int zMax, double teleportX, double teleportY,
             double teleportZ, UUID creator) {
+        this(uuid, name, worldUuid, Shape.RECTANGLE, ImmutableList.of(), xMin, zMin, xMax, zMax, teleportX, teleportY, teleportZ, creator);
+    }
+
+    public Region(UUID uuid, String name, UUID worldUuid, Shape shape, List<Vector2i> vertices, int xMin, int zMin, int xMax, int zMax,
+            double teleportX, double teleportY, double teleportZ, UUID creator) {
         this.uuid = uuid;
         this.name = name;
         this.worldUuid = worldUuid;
+        this.shape = shape;
+        this.vertices = ImmutableList.copyOf(vertices);
         this.xMin = xMin;
         this.zMin = zMin;
         this.xMax = xMax;
@@ -50,6 +86,27 @@ public class Region implements Comparable<Region> {
         this.teleportY = teleportY;
         this.teleportZ = teleportZ;
         this.creator = creator;
+
+        switch (shape) {
+            case CIRCLE:
+                mask = RegionMask.circle(xMin, zMin, xMax, zMax);
+                break;
+            case POLYGON:
+                mask = RegionMask.polygon(this.vertices, xMin, zMin, xMax, zMax);
+                break;
+            default:
+                mask = null;
+        }
+    }
+
+    /**
+     * @return Whether the block column at (x, z) is inside this region
+     */
+    public boolean contains(int x, int z) {
+        if (mask == null) {
+            return xMin < x && x < xMax && zMin < z && z < zMax;
+        }
+        return mask.contains(x, z);
     }
 
     public UUID getUuid() {
@@ -64,6 +121,17 @@ public class Region implements Comparable<Region> {
         return worldUuid;
     }
 
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * @return The corners of a polygonal region in order, or an empty list for other shapes
+     */
+    public List<Vector2i> getVertices() {
+        return vertices;
+    }
+
     public int getXMin() {
         return xMin;
     }
@@ -0,0 +1,89 @@
+/**
+ * Discovery
+ *
+ * Copyright (C) phroa <jack@phroa.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.phroa.sponge.discovery;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * An immutable snapshot of every region's bounds, laid out in flat arrays so that finding the regions around a block doesn't
+ * allocate anything. Build a new one whenever the set of regions changes.
+ */
+final class RegionIndex {
+
+    private final Region[] regions;
+
+    // Four per region: the smallest and largest block X and Z that could possibly be inside, all inclusive.
+    private final int[] bounds;
+
+    // Two per region: the most and least significant bits of its world's UUID.
+    private final long[] worlds;
+
+    RegionIndex(Collection<Region> regions) {
+        this.regions = regions.toArray(new Region[regions.size()]);
+        bounds = new int[this.regions.length * 4];
+        worlds = new long[this.regions.length * 2];
+
+        for (int i = 0; i < this.regions.length; i++) {
+            Region region = this.regions[i];
+
+            // Rectangles don't include their edges, but the other shapes' bounding boxes might.
+            int inset = region.getShape() == Region.Shape.RECTANGLE ? 1 : 0;
+            bounds[i * 4] = region.getXMin() + inset;
+            bounds[i * 4 + 1] = region.getZMin() + inset;
+            bounds[i * 4 + 2] = region.getXMax() - inset;
+            bounds[i * 4 + 3] = region.getZMax() - inset;
+
+            worlds[i * 2] = region.getWorldUuid().getMostSignificantBits();
+            worlds[i * 2 + 1] = region.getWorldUuid().getLeastSignificantBits();
+        }
+    }
+
+    Region get(int i) {
+        return regions[i];
+    }
+
+    /**
+     * Find the next region, starting from the given position in the index, which contains a block column.
+     *
+     * @param start The position to start looking from, which is 0 for the first call and one more than the last result after that
+     * @param world The world the block is in
+     * @param x The block's X coordinate
+     * @param z The block's Z coordinate
+     * @return The position of the region in the index, or -1 if there are no more
+     */
+    int next(int start, UUID world, int x, int z) {
+        long most = world.getMostSignificantBits();
+        long least = world.getLeastSignificantBits();
+
+        for (int i = start; i < regions.length; i++) {
+            int b = i * 4;
+            if (x < bounds[b] || z < bounds[b + 1] || x > bounds[b + 2] || z > bounds[b + 3]) {
+                continue;
+            }
+
+            if (worlds[i * 2] == most && worlds[i * 2 + 1] == least && regions[i].contains(x, z)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+}
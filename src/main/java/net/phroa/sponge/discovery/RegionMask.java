@@ -0,0 +1,207 @@
+/**
+ * Discovery
+ *
+ * Copyright (C) phroa <jack@phroa.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.phroa.sponge.discovery;
+
+import com.flowpowered.math.vector.Vector2i;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The blocks covered by a region with a complicated shape, rasterized once so that checking whether a block is inside costs a
+ * single bit lookup.
+ *
+ * Each 16x16 chunk touched by the region's bounding box gets 256 bits (one per block column), or null if no blocks in it are
+ * covered. Chunks that are covered completely all share the same array.
+ */
+final class RegionMask {
+
+    /**
+     * The widest or deepest a masked region's bounding box can be, in blocks. At this size the mask is a 512x512 grid of chunks.
+     */
+    static final int MAX_SIZE = 8192;
+
+    private static final long[] FULL = {-1L, -1L, -1L, -1L};
+
+    private final int chunkXMin;
+    private final int chunkZMin;
+    private final int width;
+    private final int depth;
+    private final long[][] chunks;
+
+    /**
+     * @throws IllegalArgumentException if the bounding box is backwards or bigger than {@link #MAX_SIZE}
+     */
+    private RegionMask(int xMin, int zMin, int xMax, int zMax) {
+        // Done in longs, since coordinates near the edges of the world would overflow an int
+        long sizeX = (long) xMax - xMin + 1;
+        long sizeZ = (long) zMax - zMin + 1;
+        if (sizeX < 1 || sizeZ < 1 || sizeX > MAX_SIZE || sizeZ > MAX_SIZE) {
+            throw new IllegalArgumentException("Bounding box " + sizeX + "x" + sizeZ + " is empty or larger than " + MAX_SIZE + " blocks");
+        }
+
+        chunkXMin = xMin >> 4;
+        chunkZMin = zMin >> 4;
+        width = (xMax >> 4) - chunkXMin + 1;
+        depth = (zMax >> 4) - chunkZMin + 1;
+        chunks = new long[width * depth][];
+    }
+
+    /**
+     * @return Whether the block column at (x, z) is covered
+     */
+    boolean contains(int x, int z) {
+        int cx = (x >> 4) - chunkXMin;
+        int cz = (z >> 4) - chunkZMin;
+        if (cx < 0 || cx >= width || cz < 0 || cz >= depth) {
+            return false;
+        }
+
+        long[] chunk = chunks[cz * width + cx];
+        if (chunk == null) {
+            return false;
+        }
+
+        // Shifting a long only uses the low six bits of the distance, so this picks the right bit within the word.
+        int bit = (z & 15) << 4 | (x & 15);
+        return (chunk[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    /**
+     * Rasterize the circle (or ellipse, if the box isn't square) inscribed in a bounding box. Like rectangular regions, blocks
+     * exactly on the edge aren't covered.
+     *
+     * @throws IllegalArgumentException if the bounding box is backwards or bigger than {@link #MAX_SIZE}
+     */
+    static RegionMask circle(int xMin, int zMin, int xMax, int zMax) {
+        RegionMask mask = new RegionMask(xMin, zMin, xMax, zMax);
+
+        double centerX = (xMin + xMax) / 2.0;
+        double centerZ = (zMin + zMax) / 2.0;
+        double radiusX = (xMax - xMin) / 2.0;
+        double radiusZ = (zMax - zMin) / 2.0;
+        if (radiusX <= 0 || radiusZ <= 0) {
+            return mask;
+        }
+
+        for (int z = zMin; z <= zMax; z++) {
+            double dz = (z - centerZ) / radiusZ;
+            double remaining = 1 - dz * dz;
+            if (remaining <= 0) {
+                continue;
+            }
+
+            // The square root only gets close, so nudge each end of the row until it matches the exact test
+            double half = radiusX * Math.sqrt(remaining);
+            int from = (int) Math.floor(centerX - half) + 1;
+            int to = (int) Math.ceil(centerX + half) - 1;
+            while (from <= to && !insideEllipse(from, z, xMin, zMin, xMax, zMax)) {
+                from++;
+            }
+            while (from > xMin && insideEllipse(from - 1, z, xMin, zMin, xMax, zMax)) {
+                from--;
+            }
+            while (to >= from && !insideEllipse(to, z, xMin, zMin, xMax, zMax)) {
+                to--;
+            }
+            while (to < xMax && insideEllipse(to + 1, z, xMin, zMin, xMax, zMax)) {
+                to++;
+            }
+            mask.fill(z, from, to);
+        }
+
+        return mask.compact();
+    }
+
+    /**
+     * Everything is doubled so that the center of the box lands on a whole number.
+     */
+    private static boolean insideEllipse(int x, int z, int xMin, int zMin, int xMax, int zMax) {
+        double dx = 2.0 * x - xMin - xMax;
+        double dz = 2.0 * z - zMin - zMax;
+        double width = xMax - xMin;
+        double depth = zMax - zMin;
+        return dx * dx * depth * depth + dz * dz * width * width < width * width * depth * depth;
+    }
+
+    /**
+     * Rasterize a polygon using the even-odd rule. A block is covered if its center is inside the polygon.
+     *
+     * @throws IllegalArgumentException if the bounding box is backwards or bigger than {@link #MAX_SIZE}
+     */
+    static RegionMask polygon(List<Vector2i> vertices, int xMin, int zMin, int xMax, int zMax) {
+        RegionMask mask = new RegionMask(xMin, zMin, xMax, zMax);
+        double[] crossings = new double[vertices.size()];
+
+        for (int z = zMin; z < zMax; z++) {
+            double center = z + 0.5;
+
+            // Find where each edge crosses the line through the middle of this row of blocks
+            int n = 0;
+            for (int i = 0, j = vertices.size() - 1; i < vertices.size(); j = i++) {
+                Vector2i a = vertices.get(i);
+                Vector2i b = vertices.get(j);
+                if ((a.getY() < center) != (b.getY() < center)) {
+                    crossings[n++] = a.getX() + (center - a.getY()) * (b.getX() - a.getX()) / (b.getY() - a.getY());
+                }
+            }
+            Arrays.sort(crossings, 0, n);
+
+            // Blocks between each pair of crossings are inside. A center exactly on the left edge counts, one on the right doesn't.
+            for (int i = 0; i + 1 < n; i += 2) {
+                mask.fill(z, (int) Math.ceil(crossings[i] - 0.5), (int) Math.ceil(crossings[i + 1] - 0.5) - 1);
+            }
+        }
+
+        return mask.compact();
+    }
+
+    /**
+     * Cover every block from xFrom to xTo (inclusive) in row z.
+     */
+    private void fill(int z, int xFrom, int xTo) {
+        int row = ((z >> 4) - chunkZMin) * width;
+        int bitZ = (z & 15) << 4;
+
+        // A row of a chunk is 16 bits next to each other in the same word, so it can be set all at once.
+        for (int cx = xFrom >> 4; cx <= xTo >> 4; cx++) {
+            int index = row + cx - chunkXMin;
+            if (chunks[index] == null) {
+                chunks[index] = new long[4];
+            }
+
+            int from = Math.max(xFrom, cx << 4) & 15;
+            int to = Math.min(xTo, (cx << 4) + 15) & 15;
+            chunks[index][bitZ >>> 6] |= ((1L << (to - from + 1)) - 1) << ((bitZ & 63) + from);
+        }
+    }
+
+    /**
+     * Swap completely covered chunks for the shared {@link #FULL} array, since large regions are mostly made of them.
+     */
+    private RegionMask compact() {
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] != null && Arrays.equals(chunks[i], FULL)) {
+                chunks[i] = FULL;
+            }
+        }
+        return this;
+    }
+
+}
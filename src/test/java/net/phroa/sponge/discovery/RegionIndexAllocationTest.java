@@ -0,0 +1,112 @@
+/**
+ * Discovery
+ *
+ * Copyright (C) phroa <jack@phroa.net>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.phroa.sponge.discovery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Checks that looking up the regions around a block, which {@link Discovery#onMove} does for every movement of every player,
+ * doesn't allocate anything once it's warmed up.
+ */
+public class RegionIndexAllocationTest {
+
+    private static final int REGIONS = 300;
+    private static final int MOVES = 500000;
+
+    @Test
+    public void scanAllocatesNothing() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        UUID world = UUID.randomUUID();
+        RegionIndex index = new RegionIndex(mixedRegions(world, UUID.randomUUID()));
+        long thread = Thread.currentThread().getId();
+
+        // Class loading and the interpreter can allocate during the first few thousand calls
+        scan(index, world);
+        scan(index, world);
+
+        long before = allocations.getThreadAllocatedBytes(thread);
+        long hits = scan(index, world);
+        long after = allocations.getThreadAllocatedBytes(thread);
+
+        assertTrue("The scan should find some regions", hits > 0);
+        assertEquals("Bytes allocated by " + MOVES + " moves", 0, after - before);
+    }
+
+    /**
+     * Walk over a pseudo-random series of blocks, looking up the regions at each one.
+     *
+     * @return How many regions were found in total
+     */
+    private static long scan(RegionIndex index, UUID world) {
+        long hits = 0;
+        int x = 0;
+        int z = 0;
+        for (int move = 0; move < MOVES; move++) {
+            x = (x * 1103515245 + 12345) % 4000;
+            z = (z * 214013 + 2531011) % 4000;
+
+            for (int i = index.next(0, world, x, z); i >= 0; i = index.next(i + 1, world, x, z)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Build rectangles, circles and polygons scattered over 4000x4000 blocks, with every tenth one in another world.
+     */
+    private static List<Region> mixedRegions(UUID world, UUID otherWorld) {
+        Random random = new Random(0);
+        List<Region> regions = Lists.newArrayList();
+
+        for (int i = 0; i < REGIONS; i++) {
+            int x = random.nextInt(4000) - 2000;
+            int z = random.nextInt(4000) - 2000;
+            int size = 16 + random.nextInt(200);
+            Region.Shape shape = Region.Shape.values()[i % Region.Shape.values().length];
+            List<Vector2i> vertices = shape == Region.Shape.POLYGON
+                    ? ImmutableList.of(new Vector2i(x, z), new Vector2i(x + size, z + size / 4), new Vector2i(x + size / 3, z + size))
+                    : ImmutableList.of();
+
+            regions.add(new Region(UUID.randomUUID(), "region " + i, i % 10 == 0 ? otherWorld : world, shape, vertices,
+                    x, z, x + size, z + size, x + size / 2, 64, z + size / 2, UUID.randomUUID()));
+        }
+
+        return regions;
+    }
+
+}